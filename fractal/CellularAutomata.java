@@ -3,11 +3,20 @@ package fractal;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
+import java.math.BigInteger;
+
 /**
- * Class to generate all the 256 rulesets in Wolfram Elementary Cellular Automata.
+ * Class to generate 1D Cellular Automata, with k colors (states) and neighbourhood radius r.
+ * Both Wolfram codes and totalistic codes are supported.
+ * The elementary rules (k = 2, r = 1, 256 rulesets) are the default.
  * The CA's is visualized with a 2D-grid.
  * Keep in mind that the CA's is in fact just 1D, stacked on top of eachothers.
  * In other words, one line = one CA.
+ * <p>
+ * Each rule is compiled into a lookup table, with one entry for every possible neighbourhood.
+ * The neighbourhood is read as a base k number, leftmost cell most significant.
+ * When moving one cell to the right, the leftmost digit is dropped and a new one added,
+ * so the neighbourhood is never read from scratch.
  *
  * @author Anders Engen Olsen
  */
@@ -15,14 +24,27 @@ public class CellularAutomata {
 
     private final int CELL_SIZE = 1;
 
-    // The current ruleset
+    // Max number of colors. Rules are converted to base k with BigInteger#toString(int)
+    private static final int MAX_STATES = Character.MAX_RADIX;
+
+    // Max number of entries in the lookup table
+    private static final int MAX_TABLE_SIZE = 1 << 20;
+
+    // The current ruleset, indexed by neighbourhood
     private int[] ruleset;
 
+    // Number of colors (k) and neighbourhood radius (r)
+    private int states;
+    private int radius;
+
+    // k^(2r), weight of the leftmost cell in the neighbourhood
+    private int highestWeight;
+
     // Array with all cells
     private int[] cells;
 
-    // Colors. Binary CA, 2 colors possible
-    private Color[] colors = new Color[2];
+    // Colors, one per state
+    private Color[] colors;
 
     // Drawing
     private GraphicsContext gc;
@@ -49,14 +71,11 @@ public class CellularAutomata {
     }
 
     /**
-     * Driver method.
-     * Resetting, calculating new rule, call to draw()
+     * Driver method for the elementary rules, 2 colors and radius 1.
      *
      * @param rule # ruleset to generate
      * @throws IllegalArgumentException Invalid ruleset
-     * @see #reset()
-     * @see #intToBinaryReverse(int)
-     * @see #draw()
+     * @see #start(BigInteger, int, int, boolean)
      */
     public void start(int rule) {
 
@@ -64,29 +83,101 @@ public class CellularAutomata {
             throw new IllegalArgumentException("Ruleset must be between 0 and 255!");
         }
 
+        start(BigInteger.valueOf(rule), 2, 1, false);
+    }
+
+    /**
+     * Driver method.
+     * Compiling the rule, resetting, call to draw()
+     *
+     * @param rule       Wolfram code or totalistic code
+     * @param states     number of colors, k
+     * @param radius     neighbourhood radius, r
+     * @param totalistic true if rule is a totalistic code
+     * @throws IllegalArgumentException Invalid ruleset, number of colors or radius
+     * @see #compile(BigInteger, boolean)
+     * @see #reset()
+     * @see #draw()
+     */
+    public void start(BigInteger rule, int states, int radius, boolean totalistic) {
+
+        if (states < 2 || states > MAX_STATES) {
+            throw new IllegalArgumentException("Number of colors must be between 2 and " + MAX_STATES + "!");
+        }
+
+        if (radius < 1 || radius > (cells.length - 1) / 2) {
+            throw new IllegalArgumentException("Radius must be between 1 and " + (cells.length - 1) / 2 + "!");
+        }
+
+        // k^(2r+1) neighbourhoods
+        long tableSize = 1;
+        for (int i = 0; i < 2 * radius + 1 && tableSize <= MAX_TABLE_SIZE; i++) {
+            tableSize *= states;
+        }
+
+        if (tableSize > MAX_TABLE_SIZE) {
+            throw new IllegalArgumentException("Too many neighbourhoods, reduce colors or radius!");
+        }
+
+        this.states = states;
+        this.radius = radius;
+        this.highestWeight = (int) tableSize / states;
+
+        ruleset = compile(rule, totalistic);
+        colors = new Color[states];
+
         reset();
-        ruleset = intToBinaryReverse(rule);
         draw();
     }
 
     /**
-     * Returning a binary representation of an int, reversed.
-     * The array returned is used as the ruleset.
+     * Compiling a rule into a lookup table, one entry per neighbourhood.
+     * <p>
+     * Wolfram code: digit n of the rule, in base k, is the new value for neighbourhood n.
+     * Totalistic code: digit n of the rule is the new value when the cells in
+     * the neighbourhood sum to n. The sum for each neighbourhood is found from the
+     * neighbourhood with the last cell removed, so the table is filled in one pass.
      *
-     * @param rule CellularAutomata rule
-     * @return ruleset reversed
-     * @see #next(int, int, int)
+     * @param rule       Wolfram code or totalistic code
+     * @param totalistic true if rule is a totalistic code
+     * @return lookup table, indexed by neighbourhood
+     * @throws IllegalArgumentException Invalid ruleset
+     * @see #generate(int[])
      */
-    private int[] intToBinaryReverse(int rule) {
+    private int[] compile(BigInteger rule, boolean totalistic) {
 
-        int[] binary = new int[8];
+        int tableSize = highestWeight * states;
+
+        // Number of digits in the rule
+        int digits = totalistic ? (2 * radius + 1) * (states - 1) + 1 : tableSize;
+
+        BigInteger max = BigInteger.valueOf(states).pow(digits);
+        if (rule.signum() < 0 || rule.compareTo(max) >= 0) {
+            // Only spelling out the limit when it is short, k^(k^(2r+1)) gets huge fast
+            String limit = max.bitLength() <= 64 ? max.subtract(BigInteger.ONE).toString()
+                    : states + "^" + digits + " - 1";
+            throw new IllegalArgumentException("Ruleset must be between 0 and " + limit + "!");
+        }
 
-        // int[] from int
-        for (int i = 0, num = rule; i <= 7; i++, num >>>= 1) {
-            binary[i] = num & 1;
+        // Digits, least significant first
+        int[] code = new int[digits];
+        String s = rule.toString(states);
+        for (int i = 0; i < s.length(); i++) {
+            code[i] = Character.digit(s.charAt(s.length() - 1 - i), states);
         }
 
-        return binary;
+        if (!totalistic)
+            return code;
+
+        int[] table = new int[tableSize];
+        int[] sums = new int[tableSize];
+
+        for (int n = 0; n < tableSize; n++) {
+            sums[n] = sums[n / states] + n % states;
+            table[n] = code[sums[n]];
+        }
+
+        return table;
     }
 
     /**
@@ -119,55 +210,40 @@ public class CellularAutomata {
 
     /**
      * Generating the next generation in the 1D Cellular Automata.
-     * The next generations values are calculated in next(int,int,int).
+     * <p>
+     * The neighbourhood is kept as a base k number while sliding along the cells:
+     * the leftmost cell is subtracted, the rest shifted one digit, and the new rightmost cell added.
+     * The number is then used as an index in the ruleset.
      *
      * @param cells this generation
      * @return next generation
-     * @see #next(int, int, int)
+     * @see #compile(BigInteger, boolean)
      */
     private int[] generate(int[] cells) {
         // Placeholder
         int[] newCells = new int[cells.length];
 
-        // Boundary-elements, simply ignoring them..
-        for (int x = 1; x < cells.length - 1; x++) {
+        // Neighbourhood for the first cell
+        int neighbourhood = 0;
+        for (int i = 0; i < 2 * radius + 1; i++) {
+            neighbourhood = neighbourhood * states + cells[i];
+        }
 
-            // Neighborhood
-            int left = cells[x - 1];
-            int mid = cells[x];
-            int right = cells[x + 1];
+        // Boundary-elements, simply ignoring them..
+        for (int x = radius; x < cells.length - radius; x++) {
 
-            int newState = next(left, mid, right);
+            newCells[x] = ruleset[neighbourhood];
 
-            newCells[x] = newState;
+            // Sliding one cell to the right
+            if (x + radius + 1 < cells.length) {
+                neighbourhood = (neighbourhood - cells[x - radius] * highestWeight) * states
+                        + cells[x + radius + 1];
+            }
         }
 
         return newCells;
     }
 
-    /**
-     * Calculating next generations values.
-     * <p>
-     * The algorithm converts a b c to a regular int,
-     * which will be used as in index in the ruleset.
-     * NB! Backwards!
-     *
-     * @param left  lhs value
-     * @param mid   mid value
-     * @param right rhs value
-     * @return next generation value
-     */
-    private int next(int left, int mid, int right) {
-
-        // int to String
-        String s = "" + left + mid + right;
-
-        // Parsing, base 2
-        int index = Integer.parseInt(s, 2);
-
-        return ruleset[index];
-    }
-
     /**
      * Resetting value in all cells to 0. 1 in the mid cell.
      * Adding new colors.
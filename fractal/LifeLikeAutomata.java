@@ -0,0 +1,418 @@
+package fractal;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 2D outer-totalistic Cellular Automata, such as Conway's Game of Life (B3/S23).
+ * A cell is born or survives depending only on how many of its 8 neighbours are alive.
+ * The grid is toroidal, cells on the edges wrap around to the other side.
+ * <p>
+ * The grid is bit-sliced: each row is stored as longs, one bit per cell.
+ * Neighbour counts for 64 cells are computed at once, with full and half adders
+ * built from bitwise operations. The count ends up as 4 bit-planes, one long each.
+ * <p>
+ * Rows are split into horizontal stripes, stepped in parallel.
+ * Each generation is written to a second buffer, and the buffers are swapped afterwards.
+ * <p>
+ * The grid is drawn to a WritableImage, one pixel per cell, instead of one fillRect() per cell.
+ *
+ * @author Anders Engen Olsen
+ * @see CellularAutomata
+ */
+public class LifeLikeAutomata {
+
+    // Bits per word
+    private static final int WORD = 64;
+
+    // B3/S23, S23/B3, case insensitive
+    private static final Pattern BS_RULE = Pattern.compile("(?i)^B([0-8]*)/S([0-8]*)$");
+    private static final Pattern SB_RULE = Pattern.compile("(?i)^S([0-8]*)/B([0-8]*)$");
+
+    // Grid dimensions, in cells
+    private final int gridWidth;
+    private final int gridHeight;
+
+    // Longs per row
+    private final int words;
+
+    // Current and next generation, row after row. Swapped after each step.
+    private long[] cells;
+    private long[] nextCells;
+
+    // Bit n set: a dead cell with n live neighbours is born / a live cell survives
+    private int birth;
+    private int survival;
+
+    // Stepping stripes in parallel
+    private final ExecutorService pool;
+    private final List<Callable<Void>> stripes = new ArrayList<>();
+
+    // Colors, ARGB. Binary CA, 2 colors possible
+    private int[] colors = new int[2];
+
+    // Drawing
+    private GraphicsContext gc;
+    private final WritableImage image;
+    private final int[] pixels;
+
+    // Canvas-dimensions
+    private double canvasWidth;
+    private double canvasHeight;
+
+    // Animation
+    private final AnimationTimer timer;
+    private int generationsPerFrame = 1;
+    private long generation;
+
+    /**
+     * Constructor.
+     * Grid width must be a multiple of 64. The grid is scaled to fit the canvas.
+     *
+     * @param gc           GraphicsContext, with reference to the canvas. Drawing
+     * @param canvasWidth  width canvas
+     * @param canvasHeight height canvas
+     * @param gridWidth    width grid, in cells
+     * @param gridHeight   height grid, in cells
+     * @throws IllegalArgumentException Invalid grid dimensions
+     */
+    public LifeLikeAutomata(GraphicsContext gc, double canvasWidth, double canvasHeight,
+                            int gridWidth, int gridHeight) {
+
+        if (gridWidth <= 0 || gridWidth % WORD != 0) {
+            throw new IllegalArgumentException("Grid width must be a positive multiple of 64!");
+        }
+        if (gridHeight <= 0) {
+            throw new IllegalArgumentException("Grid height must be positive!");
+        }
+
+        this.gc = gc;
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+
+        words = gridWidth / WORD;
+        cells = new long[words * gridHeight];
+        nextCells = new long[words * gridHeight];
+
+        image = new WritableImage(gridWidth, gridHeight);
+        pixels = new int[gridWidth * gridHeight];
+
+        // One stripe per core, daemon threads to not keep the application alive
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), gridHeight);
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "life-stripe");
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (int i = 0; i < threads; i++) {
+            int from = i * gridHeight / threads;
+            int to = (i + 1) * gridHeight / threads;
+            stripes.add(() -> {
+                step(from, to);
+                return null;
+            });
+        }
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                for (int i = 0; i < generationsPerFrame; i++) {
+                    generate();
+                }
+                draw();
+            }
+        };
+    }
+
+    /**
+     * Driver method.
+     * Parsing the rule, filling the grid with random cells, starting the animation.
+     *
+     * @param rule                rule in B/S-notation, such as B3/S23
+     * @param generationsPerFrame number of generations computed between each drawing
+     * @throws IllegalArgumentException Invalid rule
+     * @see #parseRule(String)
+     * @see #reset()
+     */
+    public void start(String rule, int generationsPerFrame) {
+
+        if (generationsPerFrame < 1) {
+            throw new IllegalArgumentException("Generations per frame must be at least 1!");
+        }
+
+        stop();
+        parseRule(rule);
+        this.generationsPerFrame = generationsPerFrame;
+
+        reset();
+        timer.start();
+    }
+
+    /**
+     * Stopping the animation. The grid is left as is.
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Number of generations computed since the last start.
+     *
+     * @return generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Parsing a rule in B/S-notation into the birth and survival masks.
+     * B3/S23 means a cell is born with 3 neighbours, and survives with 2 or 3.
+     *
+     * @param rule rule, B/S or S/B
+     * @throws IllegalArgumentException Invalid rule
+     */
+    private void parseRule(String rule) {
+
+        String trimmed = rule == null ? "" : rule.trim();
+
+        String born;
+        String survives;
+
+        Matcher matcher = BS_RULE.matcher(trimmed);
+        if (matcher.matches()) {
+            born = matcher.group(1);
+            survives = matcher.group(2);
+        } else {
+            matcher = SB_RULE.matcher(trimmed);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Rule must be on the form B3/S23!");
+            }
+            survives = matcher.group(1);
+            born = matcher.group(2);
+        }
+
+        birth = 0;
+        for (char c : born.toCharArray()) {
+            birth |= 1 << (c - '0');
+        }
+
+        survival = 0;
+        for (char c : survives.toCharArray()) {
+            survival |= 1 << (c - '0');
+        }
+    }
+
+    /**
+     * Computing the next generation, all stripes in parallel.
+     * Swapping buffers when all stripes are done.
+     *
+     * @see #step(int, int)
+     */
+    private void generate() {
+        try {
+            for (Future<Void> stripe : pool.invokeAll(stripes)) {
+                stripe.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        // Swapping
+        long[] tmp = cells;
+        cells = nextCells;
+        nextCells = tmp;
+
+        generation++;
+    }
+
+    /**
+     * Computing the next generation for rows [from, to).
+     * Reading from cells only, writing to nextCells only, so stripes never interfere.
+     * <p>
+     * For each word, the 8 neighbours are the rows above and below,
+     * shifted one cell west and east, plus the current row shifted west and east.
+     * The shifts carry bits over from the neighbouring words, wrapping around the edges.
+     *
+     * @param from first row
+     * @param to   last row, exclusive
+     * @see #nextWord(long, long, long, long, long, long, long, long, long)
+     */
+    private void step(int from, int to) {
+
+        for (int y = from; y < to; y++) {
+
+            // Rows above and below, wrapping
+            int up = ((y - 1 + gridHeight) % gridHeight) * words;
+            int mid = y * words;
+            int down = ((y + 1) % gridHeight) * words;
+
+            for (int i = 0; i < words; i++) {
+
+                // Neighbouring words, wrapping
+                int west = i == 0 ? words - 1 : i - 1;
+                int east = i == words - 1 ? 0 : i + 1;
+
+                nextCells[mid + i] = nextWord(
+                        cells[up + west], cells[up + i], cells[up + east],
+                        cells[mid + west], cells[mid + i], cells[mid + east],
+                        cells[down + west], cells[down + i], cells[down + east]);
+            }
+        }
+    }
+
+    /**
+     * Computing the next state for the 64 cells in one word.
+     * <p>
+     * Bit j in a word is cell j. Shifting left moves each cell's west neighbour into its place,
+     * shifting right moves the east neighbour into its place.
+     * The 8 neighbours are summed with an adder tree, giving the count as 4 bit-planes.
+     *
+     * @return next generation for the word
+     */
+    private long nextWord(long upWest, long up, long upEast,
+                          long midWest, long mid, long midEast,
+                          long downWest, long down, long downEast) {
+
+        // The 8 neighbours, aligned with the cells in mid
+        long n0 = (up << 1) | (upWest >>> 63);
+        long n1 = up;
+        long n2 = (up >>> 1) | (upEast << 63);
+        long n3 = (mid << 1) | (midWest >>> 63);
+        long n4 = (mid >>> 1) | (midEast << 63);
+        long n5 = (down << 1) | (downWest >>> 63);
+        long n6 = down;
+        long n7 = (down >>> 1) | (downEast << 63);
+
+        // Full adders, weight 1 -> sum (weight 1) and carry (weight 2)
+        long xa = n0 ^ n1;
+        long sumA = xa ^ n2;
+        long carryA = (n0 & n1) | (xa & n2);
+
+        long xb = n3 ^ n4;
+        long sumB = xb ^ n5;
+        long carryB = (n3 & n4) | (xb & n5);
+
+        // Half adder
+        long sumC = n6 ^ n7;
+        long carryC = n6 & n7;
+
+        // Weight 1
+        long xo = sumA ^ sumB;
+        long bit0 = xo ^ sumC;
+        long carryO = (sumA & sumB) | (xo & sumC);
+
+        // Weight 2: carryA, carryB, carryC, carryO
+        long xt = carryA ^ carryB;
+        long sumT = xt ^ carryC;
+        long carryT = (carryA & carryB) | (xt & carryC);
+        long bit1 = sumT ^ carryO;
+        long carryT2 = sumT & carryO;
+
+        // Weight 4: carryT + carryT2, at most 2
+        long bit2 = carryT ^ carryT2;
+        long bit3 = carryT & carryT2;
+
+        // Looking up the count in the rule
+        long born = 0;
+        long survives = 0;
+        for (int n = 0; n <= 8; n++) {
+            if (((birth | survival) >>> n & 1) == 0)
+                continue;
+
+            // All cells with exactly n neighbours
+            long count = ((n & 1) != 0 ? bit0 : ~bit0)
+                    & ((n & 2) != 0 ? bit1 : ~bit1)
+                    & ((n & 4) != 0 ? bit2 : ~bit2)
+                    & ((n & 8) != 0 ? bit3 : ~bit3);
+
+            if ((birth >>> n & 1) != 0)
+                born |= count;
+            if ((survival >>> n & 1) != 0)
+                survives |= count;
+        }
+
+        return (~mid & born) | (mid & survives);
+    }
+
+    /**
+     * Drawing the grid on the canvas.
+     * Cells are written to a pixel buffer, which is drawn in one go, scaled to the canvas.
+     */
+    private void draw() {
+
+        int dead = colors[0];
+        int alive = colors[1];
+
+        for (int y = 0, p = 0; y < gridHeight; y++) {
+            for (int i = 0; i < words; i++) {
+                long word = cells[y * words + i];
+                for (int j = 0; j < WORD; j++, p++) {
+                    pixels[p] = (word >>> j & 1) != 0 ? alive : dead;
+                }
+            }
+        }
+
+        image.getPixelWriter().setPixels(0, 0, gridWidth, gridHeight,
+                PixelFormat.getIntArgbInstance(), pixels, 0, gridWidth);
+
+        gc.drawImage(image, 0, 0, canvasWidth, canvasHeight);
+    }
+
+    /**
+     * Filling the grid with random cells.
+     * Adding new colors.
+     * Resetting canvas
+     */
+    private void reset() {
+        Random random = new Random();
+
+        // Init-values, every bit is a cell
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = random.nextLong();
+        }
+
+        // Random colors
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = toArgb(Color.color(Math.random(), Math.random(), Math.random()));
+        }
+
+        generation = 0;
+
+        // Clearing canvas
+        gc.clearRect(0, 0, canvasWidth, canvasHeight);
+        draw();
+    }
+
+    /**
+     * Converting a Color to an opaque ARGB int.
+     *
+     * @param color color
+     * @return ARGB
+     */
+    private static int toArgb(Color color) {
+        return 0xFF000000
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+}
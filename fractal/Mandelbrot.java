@@ -122,6 +122,7 @@ public class Mandelbrot implements EventHandler<MouseEvent> {
      *
      * @see #computeRe(double)
      * @see #computeIm(double)
+     * @see #escapeTime(double, double, int)
      */
     public void drawMandelbrot() {
 
@@ -150,27 +151,8 @@ public class Mandelbrot implements EventHandler<MouseEvent> {
                 // x mapped to the real part of C
                 double cRe = reMin + (x * deltaA);
 
-                // Z starts at 0
-                double zRe = 0;
-                double zIm = 0;
-
                 // Counter
-                int count = 0;
-
-                while (zRe * zRe + zIm * zIm <= 4
-                        && count <= maxIterations) {
-
-                    // Values for next iteration.
-                    // nextZRe = zRe² - zIm² + cRe,
-                    double nextZRe = zRe * zRe - zIm * zIm + cRe;
-                    // nextZIm = 2 * zRe * zIm + cIm
-                    double nextZIm = 2 * zRe * zIm + cIm;
-
-                    // Updating
-                    zRe = nextZRe;
-                    zIm = nextZIm;
-                    count++;
-                }
+                int count = escapeTime(cRe, cIm, maxIterations);
 
                 // If we reached maxIterations, we can assume the value is in the set.
                 if (count <= maxIterations) {
@@ -184,6 +166,45 @@ public class Mandelbrot implements EventHandler<MouseEvent> {
         }
     }
 
+    /**
+     * Iterating Z = Z² + C, starting at Z = 0, until Z leaves the circle with radius 2.
+     * Kept free of any JavaFX state, so it can be used without a canvas.
+     * <p>
+     * A return value greater than maxIterations means C is assumed to be in the set.
+     *
+     * @param cRe           real part of C
+     * @param cIm           imaginary part of C
+     * @param maxIterations max number of iterations
+     * @return number of iterations before Z escaped
+     * @see server.TileRenderer
+     */
+    public static int escapeTime(double cRe, double cIm, int maxIterations) {
+
+        // Z starts at 0
+        double zRe = 0;
+        double zIm = 0;
+
+        // Counter
+        int count = 0;
+
+        while (zRe * zRe + zIm * zIm <= 4
+                && count <= maxIterations) {
+
+            // Values for next iteration.
+            // nextZRe = zRe² - zIm² + cRe,
+            double nextZRe = zRe * zRe - zIm * zIm + cRe;
+            // nextZIm = 2 * zRe * zIm + cIm
+            double nextZIm = 2 * zRe * zIm + cIm;
+
+            // Updating
+            zRe = nextZRe;
+            zIm = nextZIm;
+            count++;
+        }
+
+        return count;
+    }
+
     /**
      * Mapping screen-coordinates to the real part of C (a in Z = a + ib)
      *
@@ -0,0 +1,190 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Load generator for the tile server.
+ * Starting a TileServer on a free port with an empty disk cache,
+ * and firing concurrent GET-requests at it over localhost.
+ * <p>
+ * Two rounds are run over the same random tiles:
+ * a cold round, where most tiles are rendered, and a warm round, served from the cache.
+ * Tiles are drawn from a small range, so some requests hit the same tile at the same time.
+ * <p>
+ * Started from the command line:
+ * java server.LoadGenerator [requests] [concurrency] [zoom]
+ *
+ * @author Anders Engen Olsen
+ * @see TileServer
+ */
+public class LoadGenerator {
+
+    // Defaults
+    private static final int DEFAULT_REQUESTS = 2000;
+    private static final int DEFAULT_CONCURRENCY = 32;
+    private static final int DEFAULT_ZOOM = 4;
+
+    private final int port;
+    private final int concurrency;
+
+    /**
+     * Constructor.
+     *
+     * @param port        port the tile server is listening on
+     * @param concurrency number of requests in flight at once
+     */
+    public LoadGenerator(int port, int concurrency) {
+        this.port = port;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Requesting all tiles, concurrency at a time, and printing the latencies.
+     *
+     * @param name  name of the round
+     * @param tiles tiles to request, {z, x, y}
+     * @throws InterruptedException Interrupted while waiting
+     * @throws ExecutionException   A request failed
+     */
+    public void run(String name, List<int[]> tiles) throws InterruptedException, ExecutionException {
+
+        List<Callable<Long>> requests = new ArrayList<>();
+        for (int[] tile : tiles) {
+            requests.add(() -> fetch(tile[0], tile[1], tile[2]));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+
+        long start = System.nanoTime();
+        List<Future<Long>> results;
+        try {
+            results = pool.invokeAll(requests);
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Latencies, sorted. Negative for requests not answered with 200
+        long[] latencies = new long[results.size()];
+        int failed = 0;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = results.get(i).get();
+            if (latencies[i] < 0)
+                failed++;
+        }
+        latencies = Arrays.stream(latencies).filter(l -> l >= 0).sorted().toArray();
+
+        System.out.printf("%-5s %d requests, %d failed, %.1f req/s, p50 %.2f ms, p99 %.2f ms%n",
+                name, results.size(), failed, results.size() / (elapsed / 1e9),
+                percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6);
+    }
+
+    /**
+     * Fetching a single tile, reading the entire response.
+     *
+     * @param z zoom level
+     * @param x tile column
+     * @param y tile row
+     * @return latency in nanoseconds, or -1 if the response was not 200
+     * @throws IOException Connection failed
+     */
+    private long fetch(int z, int x, int y) throws IOException {
+
+        URL url = new URL("http://localhost:" + port + "/" + z + "/" + x + "/" + y + ".png");
+
+        long start = System.nanoTime();
+
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            int status = connection.getResponseCode();
+
+            // Reading the body, so the latency covers the whole tile
+            try (InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) != -1) ;
+                }
+            }
+
+            return status == 200 ? System.nanoTime() - start : -1;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Nearest-rank percentile.
+     *
+     * @param sorted sorted values
+     * @param p      percentile, 0-100
+     * @return value at the percentile, or 0 if there are no values
+     */
+    private static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0)
+            return 0;
+
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Running the load generator against a fresh tile server.
+     *
+     * @param args [requests] [concurrency] [zoom]
+     * @throws Exception Server could not start, or a request failed
+     */
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_REQUESTS;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CONCURRENCY;
+        int zoom = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ZOOM;
+
+        if (!TileRenderer.isValid(zoom, 0, 0)) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + TileRenderer.MAX_ZOOM + "!");
+        }
+
+        // Random tiles on the zoom level. Fewer tiles than requests, so tiles are repeated.
+        int tilesPerAxis = 1 << Math.min(zoom, 30);
+        Random random = new Random(42);
+        List<int[]> tiles = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            tiles.add(new int[]{zoom, random.nextInt(tilesPerAxis), random.nextInt(tilesPerAxis)});
+        }
+
+        Path cacheDirectory = Files.createTempDirectory("tile-cache");
+
+        TileServer tileServer = new TileServer(0, cacheDirectory);
+        tileServer.start();
+
+        try {
+            System.out.println("Tile server on port " + tileServer.getPort() + ", zoom " + zoom
+                    + ", concurrency " + concurrency);
+
+            LoadGenerator loadGenerator = new LoadGenerator(tileServer.getPort(), concurrency);
+            loadGenerator.run("cold", tiles);
+            loadGenerator.run("warm", tiles);
+        } finally {
+            tileServer.stop();
+
+            // Removing the temporary disk cache
+            try (Stream<Path> files = Files.walk(cacheDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+}
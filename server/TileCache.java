@@ -0,0 +1,163 @@
+package server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Two-level cache for rendered tiles.
+ * <p>
+ * Lookup order:
+ * 1. In-memory LRU, holding the most recently used tiles.
+ * 2. Disk, one file per tile in z/x/y.png, surviving restarts.
+ * 3. Rendering on the worker pool, storing the result in both levels.
+ * <p>
+ * Concurrent requests for the same tile share one pending lookup,
+ * so a tile is never rendered twice at the same time.
+ *
+ * @author Anders Engen Olsen
+ * @see TileRenderer
+ */
+public class TileCache {
+
+    // Level 1, access ordered. Guarded by itself.
+    private final Map<String, byte[]> memory;
+
+    // Level 2
+    private final Path directory;
+
+    // Lookups in progress, key -> pending result
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+
+    // Rendering
+    private final TileRenderer renderer;
+    private final ExecutorService workers;
+
+    /**
+     * Constructor.
+     *
+     * @param renderer    tile renderer
+     * @param workers     bounded pool for disk lookups and rendering
+     * @param directory   root directory for the disk cache
+     * @param memoryTiles max number of tiles kept in memory
+     */
+    public TileCache(TileRenderer renderer, ExecutorService workers, Path directory, int memoryTiles) {
+        this.renderer = renderer;
+        this.workers = workers;
+        this.directory = directory;
+
+        // LinkedHashMap in access order, evicting the eldest entry when full
+        this.memory = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > memoryTiles;
+            }
+        };
+    }
+
+    /**
+     * Fetching a tile, PNG-encoded.
+     * Completes immediately on a memory hit, otherwise on the worker pool.
+     *
+     * @param z zoom level
+     * @param x tile column
+     * @param y tile row
+     * @return pending PNG bytes
+     * @throws java.util.concurrent.RejectedExecutionException Worker pool is full
+     */
+    public CompletableFuture<byte[]> get(int z, int x, int y) {
+
+        String key = z + "/" + x + "/" + y;
+
+        byte[] tile;
+        synchronized (memory) {
+            tile = memory.get(key);
+        }
+        if (tile != null)
+            return CompletableFuture.completedFuture(tile);
+
+        // Joining a lookup in progress, or starting a new one
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = pending.putIfAbsent(key, future);
+        if (existing != null)
+            return existing;
+
+        try {
+            workers.execute(() -> {
+                try {
+                    future.complete(load(key, z, x, y));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    pending.remove(key, future);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rejected, letting everyone waiting on this tile know
+            pending.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+
+        return future;
+    }
+
+    /**
+     * Reading the tile from disk, or rendering and storing it.
+     * Called on the worker pool.
+     *
+     * @param key cache key, z/x/y
+     * @param z   zoom level
+     * @param x   tile column
+     * @param y   tile row
+     * @return PNG bytes
+     */
+    private byte[] load(String key, int z, int x, int y) {
+        Path file = directory.resolve(key + ".png");
+
+        try {
+            byte[] tile;
+            if (Files.isRegularFile(file)) {
+                tile = Files.readAllBytes(file);
+            } else {
+                tile = renderer.render(z, x, y);
+                store(file, tile);
+            }
+
+            synchronized (memory) {
+                memory.put(key, tile);
+            }
+
+            return tile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writing a tile to disk.
+     * Written to a temporary file first, so readers never see half a tile.
+     *
+     * @param file destination
+     * @param tile PNG bytes
+     * @throws IOException Writing failed
+     */
+    private void store(Path file, byte[] tile) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        Path tmp = Files.createTempFile(file.getParent(), "tile", ".tmp");
+        try {
+            Files.write(tmp, tile);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package server;
+
+import fractal.Mandelbrot;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Rendering XYZ-tiles of the Mandelbrot set to PNG.
+ * <p>
+ * Zoom level 0 is a single tile covering the same area as the Mandelbrot tab,
+ * -2 to 2 on both the real and the imaginary axis.
+ * Each zoom level doubles the number of tiles in both directions.
+ * Tile (0, 0) is the upper left corner, like in any web map viewer.
+ * <p>
+ * The Mandelbrot tab picks new random colors for each drawing.
+ * Tiles next to each other must match, so the palette is seeded and fixed for the renderer.
+ *
+ * @author Anders Engen Olsen
+ * @see Mandelbrot#escapeTime(double, double, int)
+ */
+public class TileRenderer {
+
+    // Tile dimensions, in pixels
+    public static final int TILE_SIZE = 256;
+
+    // Max zoom level. 2^31 tiles per axis, so x and y still fit in an int.
+    public static final int MAX_ZOOM = 31;
+
+    // Bounds of the complex plane at zoom level 0
+    private static final double RE_MIN = -2.00;
+    private static final double IM_MAX = 2.00;
+    private static final double SPAN = 4.00;
+
+    // Same as in the Mandelbrot tab
+    private final int maxIterations;
+
+    // Fixed palette, RGB
+    private final int[] colors;
+
+    /**
+     * Constructor.
+     *
+     * @param maxIterations max number of iterations per pixel
+     * @param seed          seed for the palette
+     */
+    public TileRenderer(int maxIterations, long seed) {
+        this.maxIterations = maxIterations;
+
+        // Seeded random colors
+        Random random = new Random(seed);
+        colors = new int[maxIterations + 1];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = random.nextInt(0x1000000);
+        }
+    }
+
+    /**
+     * Checking if z/x/y is a tile in the pyramid.
+     *
+     * @param z zoom level
+     * @param x tile column
+     * @param y tile row
+     * @return true if valid
+     */
+    public static boolean isValid(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM)
+            return false;
+
+        long tiles = 1L << z;
+        return x >= 0 && x < tiles && y >= 0 && y < tiles;
+    }
+
+    /**
+     * Rendering a single tile, encoded as PNG.
+     *
+     * @param z zoom level
+     * @param x tile column
+     * @param y tile row
+     * @return PNG bytes
+     * @throws IllegalArgumentException Invalid tile
+     * @throws IOException              Encoding failed
+     */
+    public byte[] render(int z, int x, int y) throws IOException {
+
+        if (!isValid(z, x, y)) {
+            throw new IllegalArgumentException("Invalid tile: " + z + "/" + x + "/" + y);
+        }
+
+        // Distance between pixels
+        double delta = SPAN / ((double) TILE_SIZE * (1L << z));
+
+        // Upper left corner of the tile in the complex plane
+        double tileRe = RE_MIN + (double) x * TILE_SIZE * delta;
+        double tileIm = IM_MAX - (double) y * TILE_SIZE * delta;
+
+        int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+
+        for (int py = 0; py < TILE_SIZE; py++) {
+
+            // y mapped to the imaginary part of C
+            double cIm = tileIm - py * delta;
+
+            for (int px = 0; px < TILE_SIZE; px++) {
+
+                // x mapped to the real part of C
+                double cRe = tileRe + px * delta;
+
+                int count = Mandelbrot.escapeTime(cRe, cIm, maxIterations);
+
+                // If we reached maxIterations, we can assume the value is in the set.
+                pixels[py * TILE_SIZE + px] = count <= maxIterations ? colors[count - 1] : 0x000000;
+            }
+        }
+
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, TILE_SIZE, TILE_SIZE, pixels, 0, TILE_SIZE);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,208 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serving Mandelbrot tiles over HTTP, without the JavaFX stage.
+ * Tiles are available as /{z}/{x}/{y}.png, usable by any XYZ web map viewer.
+ * <p>
+ * Started from the command line:
+ * java view.Main --server [port] [cache directory]
+ * <p>
+ * Requests are handled on one pool, rendering happens on a bounded worker pool.
+ * When the worker queue is full, the server answers 503 instead of piling up work.
+ *
+ * @author Anders Engen Olsen
+ * @see TileCache
+ * @see TileRenderer
+ */
+public class TileServer implements HttpHandler {
+
+    // Defaults
+    private static final int DEFAULT_PORT = 8080;
+    private static final String DEFAULT_CACHE_DIR = "tile-cache";
+
+    // Same as the Mandelbrot tab
+    private static final int MAX_ITERATIONS = 512;
+    private static final long PALETTE_SEED = 42;
+
+    // Number of tiles in the memory cache. 256x256 PNG's are rarely above 100kB.
+    private static final int MEMORY_TILES = 1024;
+
+    // Max number of tiles waiting for a worker
+    private static final int WORKER_QUEUE = 256;
+
+    // /{z}/{x}/{y}.png
+    private static final Pattern TILE_PATH = Pattern.compile("^/(\\d{1,2})/(\\d{1,13})/(\\d{1,13})\\.png$");
+
+    private final TileCache cache;
+
+    private HttpServer server;
+    private ExecutorService requestPool;
+    private ExecutorService workerPool;
+
+    private final int port;
+
+    // Headers and body are written separately. Without TCP_NODELAY, keep-alive
+    // connections stall about 40ms per tile on delayed ACKs. Read when HttpServer is first used.
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param port           port to listen on
+     * @param cacheDirectory root directory for the disk cache
+     */
+    public TileServer(int port, Path cacheDirectory) {
+        this.port = port;
+
+        // One worker per core, rendering is CPU-bound
+        int threads = Runtime.getRuntime().availableProcessors();
+        workerPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WORKER_QUEUE), new ThreadPoolExecutor.AbortPolicy());
+
+        cache = new TileCache(new TileRenderer(MAX_ITERATIONS, PALETTE_SEED), workerPool, cacheDirectory, MEMORY_TILES);
+    }
+
+    /**
+     * Binding to the port and starting to accept requests.
+     *
+     * @throws IOException Could not bind
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/", this);
+
+        // Request threads mostly wait on the workers
+        requestPool = Executors.newFixedThreadPool(4 * Runtime.getRuntime().availableProcessors());
+        server.setExecutor(requestPool);
+
+        server.start();
+    }
+
+    /**
+     * Stopping the server and both pools.
+     */
+    public void stop() {
+        server.stop(0);
+        requestPool.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * Port the server is listening on. Useful when started on port 0.
+     *
+     * @return port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handling a single tile request.
+     *
+     * @param exchange request and response
+     * @throws IOException Writing the response failed
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            Matcher matcher = TILE_PATH.matcher(exchange.getRequestURI().getPath());
+            if (!matcher.matches()) {
+                sendError(exchange, 404, "Not found, expected /{z}/{x}/{y}.png");
+                return;
+            }
+
+            int z = Integer.parseInt(matcher.group(1));
+            long x = Long.parseLong(matcher.group(2));
+            long y = Long.parseLong(matcher.group(3));
+
+            if (x > Integer.MAX_VALUE || y > Integer.MAX_VALUE || !TileRenderer.isValid(z, (int) x, (int) y)) {
+                sendError(exchange, 404, "No such tile");
+                return;
+            }
+
+            byte[] tile = cache.get(z, (int) x, (int) y).get();
+
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=86400");
+            exchange.sendResponseHeaders(200, tile.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(tile);
+            }
+        } catch (RejectedExecutionException e) {
+            sendError(exchange, 503, "Busy, try again");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "Shutting down");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException)
+                sendError(exchange, 503, "Busy, try again");
+            else
+                sendError(exchange, 500, "Rendering failed: " + e.getCause());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sending a plain text error.
+     *
+     * @param exchange request and response
+     * @param status   HTTP status code
+     * @param message  error message
+     * @throws IOException Writing the response failed
+     */
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes("UTF-8");
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Starting the tile server.
+     *
+     * @param args [port] [cache directory]
+     * @throws IOException Could not bind
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path cacheDirectory = Paths.get(args.length > 1 ? args[1] : DEFAULT_CACHE_DIR);
+
+        TileServer tileServer = new TileServer(port, cacheDirectory);
+        tileServer.start();
+
+        System.out.println("Serving Mandelbrot tiles on http://localhost:" + tileServer.getPort()
+                + "/{z}/{x}/{y}.png, caching in " + cacheDirectory.toAbsolutePath());
+    }
+}
@@ -1,7 +1,11 @@
 package view;
 
 import fractal.CellularAutomata;
+import fractal.LifeLikeAutomata;
 import fractal.Mandelbrot;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
@@ -15,12 +19,17 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import server.TileServer;
 
+import java.io.IOException;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
- * The application currently holds only 2 tabs, Mandelbrot and Cellular Automata.
+ * The application currently holds 3 tabs, Mandelbrot, Cellular Automata and 2D Cellular Automata.
  * <p>
  * The GUI is made dynamically.
  * TODO: Implement GUI with Scenebuilder.
@@ -29,6 +38,7 @@ import java.util.ArrayList;
  * @author Anders Engen Olsen
  * @see Mandelbrot
  * @see CellularAutomata
+ * @see LifeLikeAutomata
  */
 public class Main extends Application {
 
@@ -42,6 +52,7 @@ public class Main extends Application {
     // Tabs
     private Tab tabMandelbrot;
     private Tab tabAutomata;
+    private Tab tabLife;
 
     // Reference to all tabs
     private ArrayList<Tab> tabs;
@@ -74,6 +85,7 @@ public class Main extends Application {
      * @see #initTopBox(int, int)
      * @see #setUpMandelbrotTab(GraphicsContext, HBox)
      * @see #setUpAutomataTab(GraphicsContext, HBox)
+     * @see #setUpLifeTab(GraphicsContext, HBox)
      */
     private Scene initScene() {
 
@@ -107,8 +119,10 @@ public class Main extends Application {
             // Setting up
             if (tab.equals(tabMandelbrot)) {
                 setUpMandelbrotTab(gc, topBox);
-            } else if (tab.equals(tabAutomata))
+            } else if (tab.equals(tabAutomata)) {
                 setUpAutomataTab(gc, topBox);
+            } else if (tab.equals(tabLife))
+                setUpLifeTab(gc, topBox);
 
             // -- VBox container for the entire layout within the tab. -- //
             VBox vBox = new VBox();
@@ -166,32 +180,112 @@ public class Main extends Application {
 
     /**
      * Initializing CellularAutomata-object, and adding buttons to top vbox.
+     * Empty colors / radius fields gives the elementary rules.
      *
      * @param gc GraphicsContext for drawing
      * @see CellularAutomata
-     * @see CellularAutomata#start(int)
+     * @see CellularAutomata#start(BigInteger, int, int, boolean)
      */
     private void setUpAutomataTab(GraphicsContext gc, HBox hBox) {
         CellularAutomata cellularAutomata = new CellularAutomata(gc, CANVAS_WIDTH, CANVAS_HEIGHT);
 
         // TextArea for ruleset
         TextField rulesetTxt = new TextField();
-        rulesetTxt.setPromptText("Ruleset (1-255)");
+        rulesetTxt.setPromptText("Ruleset (0-255)");
+
+        // TextFields for number of colors and radius
+        TextField statesTxt = new TextField();
+        statesTxt.setPromptText("Colors (2)");
+
+        TextField radiusTxt = new TextField();
+        radiusTxt.setPromptText("Radius (1)");
+
+        CheckBox totalisticBox = new CheckBox("Totalistic");
+        totalisticBox.setTextFill(Color.WHITE);
 
         Button btnGenerate = new Button("Generate CA");
 
         // Draw-button
         btnGenerate.setOnAction((ActionEvent e) -> {
 
+            String states = statesTxt.getText().isEmpty() ? "2" : statesTxt.getText();
+            String radius = radiusTxt.getText().isEmpty() ? "1" : radiusTxt.getText();
+
             try {
-                cellularAutomata.start(Integer.parseInt(rulesetTxt.getText()));
+                cellularAutomata.start(new BigInteger(rulesetTxt.getText().trim()),
+                        Integer.parseInt(states.trim()), Integer.parseInt(radius.trim()),
+                        totalisticBox.isSelected());
             } catch (IllegalArgumentException err) {
                 new Alert(Alert.AlertType.ERROR, err.getMessage()).showAndWait();
             }
 
         });
 
-        hBox.getChildren().addAll(btnGenerate, rulesetTxt);
+        hBox.getChildren().addAll(btnGenerate, rulesetTxt, statesTxt, radiusTxt, totalisticBox);
+    }
+
+    /**
+     * Initializing LifeLikeAutomata-object, and adding buttons to top vbox.
+     * The grid fills the canvas, one cell per pixel.
+     *
+     * @param gc GraphicsContext for drawing
+     * @see LifeLikeAutomata
+     * @see LifeLikeAutomata#start(String, int)
+     */
+    private void setUpLifeTab(GraphicsContext gc, HBox hBox) {
+        LifeLikeAutomata lifeLikeAutomata = new LifeLikeAutomata(gc, CANVAS_WIDTH, CANVAS_HEIGHT,
+                CANVAS_WIDTH, CANVAS_HEIGHT);
+
+        // TextField for rule
+        TextField ruleTxt = new TextField();
+        ruleTxt.setPromptText("Rule (B3/S23)");
+
+        // TextField for speed
+        TextField speedTxt = new TextField();
+        speedTxt.setPromptText("Generations per frame");
+
+        Button btnStart = new Button("Start");
+        Button btnStop = new Button("Stop");
+
+        // Generation counter and speed, updated every second
+        Label generationLbl = new Label();
+        generationLbl.setTextFill(Color.WHITE);
+
+        long[] lastGeneration = new long[1];
+        Timeline counter = new Timeline(new KeyFrame(Duration.seconds(1), (ActionEvent e) -> {
+            long generation = lifeLikeAutomata.getGeneration();
+
+            // Restarted since last update
+            if (generation < lastGeneration[0])
+                lastGeneration[0] = 0;
+
+            generationLbl.setText("Generation " + generation + ", "
+                    + (generation - lastGeneration[0]) + " generations/s");
+            lastGeneration[0] = generation;
+        }));
+        counter.setCycleCount(Animation.INDEFINITE);
+        counter.play();
+
+        // Start-button. Empty fields gives Game of Life, one generation per frame
+        btnStart.setOnAction((ActionEvent e) -> {
+
+            String rule = ruleTxt.getText().isEmpty() ? "B3/S23" : ruleTxt.getText();
+            String speed = speedTxt.getText().isEmpty() ? "1" : speedTxt.getText();
+
+            try {
+                lifeLikeAutomata.start(rule, Integer.parseInt(speed));
+            } catch (IllegalArgumentException err) {
+                new Alert(Alert.AlertType.ERROR, err.getMessage()).showAndWait();
+            }
+
+        });
+
+        // Stop-button
+        btnStop.setOnAction((ActionEvent e) -> {
+            lifeLikeAutomata.stop();
+        });
+
+        hBox.getChildren().addAll(btnStart, btnStop, ruleTxt, speedTxt, generationLbl);
     }
 
     /**
@@ -200,11 +294,13 @@ public class Main extends Application {
     private void initTabs() {
         tabMandelbrot = new Tab("Mandelbrot");
         tabAutomata = new Tab("Cellular Automata");
+        tabLife = new Tab("2D Cellular Automata");
 
         tabs = new ArrayList<>();
 
         tabs.add(tabMandelbrot);
         tabs.add(tabAutomata);
+        tabs.add(tabLife);
     }
 
     /**
@@ -225,7 +321,19 @@ public class Main extends Application {
         return topBox;
     }
 
-    public static void main(String[] args) {
+    /**
+     * Launching the GUI, or the tile server when started with --server.
+     *
+     * @param args --server [port] [cache directory]
+     * @throws IOException Tile server could not bind
+     * @see TileServer
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            TileServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         launch(args);
     }
 